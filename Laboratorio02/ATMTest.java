@@ -5,8 +5,12 @@ import org.junit.Before;
 import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ATMTest {
     private ATM atm;
@@ -298,6 +302,213 @@ public class ATMTest {
 
         assertEquals(expectedMessages, screen.getMessages());
     }
+
+    // CP19: El historial de mensajes conserva solo los mensajes ms recientes
+    @Test
+    public void testMessageHistoryRetention() {
+        Screen boundedScreen = new Screen(2);
+        boundedScreen.displayMessageLine("\nMain Menu:");
+        boundedScreen.displayMessageLine("1 - View my balance");
+        boundedScreen.displayMessageLine("2 - Withdraw cash");
+
+        List<String> expectedMessages = new ArrayList<>();
+        expectedMessages.add("1 - View my balance");
+        expectedMessages.add("2 - Withdraw cash");
+
+        assertEquals(expectedMessages, boundedScreen.getMessages());
+    }
+
+    // CP20: Prueba para mostrar importes con el mismo formato que printf
+    @Test
+    public void testDollarAmountFormat() {
+        System.setOut(new PrintStream(outContent));
+        try {
+            screen.dispalyDollarAmount(1234567.5);
+            assertEquals(String.format(Locale.US, "$%,.2f", 1234567.5), getOutputAndReset());
+            screen.displayCentsAmount(-100005);
+            assertEquals("$-1,000.05", getOutputAndReset());
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    // CP21: El men principal precalculado registra los mismos mensajes que CP07
+    @Test
+    public void testMainMenuFrame() {
+        screen.displayFrame(ScreenFrame.MAIN_MENU);
+
+        List<String> expectedMessages = new ArrayList<>();
+        expectedMessages.add("\nMain Menu:");
+        expectedMessages.add("1 - View my balance");
+        expectedMessages.add("2 - Withdraw cash");
+        expectedMessages.add("3 - Deposit funds");
+        expectedMessages.add("4 - Exit\n");
+        expectedMessages.add("Choose an option: ");
+
+        assertEquals(expectedMessages, screen.getMessages());
+    }
+
+    // CP22: La salida en segundo plano conserva el orden y el contenido exacto
+    @Test
+    public void testBackgroundScreenOutput() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ScreenWriter writer = new ScreenWriter(new PrintStream(buffer), 2);
+        Screen asyncScreen = new Screen(10, writer);
+        asyncScreen.displayMessage(" - Available balance: ");
+        asyncScreen.dispalyDollarAmount(1234.5);
+        asyncScreen.displayMessageLine("");
+        asyncScreen.displayMessageLine("\nYour cash has been dispensed. Please take your cash now.");
+        asyncScreen.displayMessage("\nChoose a withdrawal amount: ");
+        writer.close();
+        writer.close();
+
+        assertEquals(" - Available balance: $1,234.50" + System.lineSeparator()
+                + "\nYour cash has been dispensed. Please take your cash now." + System.lineSeparator()
+                + "\nChoose a withdrawal amount: ", buffer.toString());
+        try {
+            asyncScreen.displayMessage("late");
+            fail("write after close must be rejected");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    // CP23: Cada sesin escribe en su propia salida y nada llega a System.out
+    @Test
+    public void testPerSessionScreenOutput() {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(outContent));
+        try {
+            Screen firstScreen = new Screen(10, new PrintStream(first));
+            Screen secondScreen = new Screen(10, new PrintStream(second));
+            firstScreen.displayMessage("\nPlease enter your PIN: ");
+            secondScreen.displayMessageLine("\nWelcome!");
+            firstScreen.dispalyDollarAmount(20);
+            secondScreen.displayCentsAmount(4000);
+        } finally {
+            System.setOut(originalOut);
+        }
+
+        assertEquals("\nPlease enter your PIN: $20.00", first.toString());
+        assertEquals("\nWelcome!" + System.lineSeparator() + "$40.00", second.toString());
+        assertEquals("", outContent.toString());
+    }
+
+    // CP24: Las mtricas cuentan cada llamada de salida de la pantalla
+    @Test
+    public void testScreenMetrics() {
+        ScreenMetrics metrics = new ScreenMetrics();
+        Screen measuredScreen = new Screen(10, new PrintStream(outContent));
+        measuredScreen.setMetrics(metrics);
+        measuredScreen.displayMessage(" - Available balance: ");
+        measuredScreen.dispalyDollarAmount(1000.0);
+        measuredScreen.displayMessage("\n - Total balance:");
+        measuredScreen.displayCentsAmount(120000);
+        measuredScreen.displayMessageLine("");
+        measuredScreen.displayFrame(ScreenFrame.MAIN_MENU);
+
+        assertEquals(2L, metrics.latency(ScreenMetrics.Operation.MESSAGE).count());
+        assertEquals(1L, metrics.latency(ScreenMetrics.Operation.MESSAGE_LINE).count());
+        assertEquals(2L, metrics.latency(ScreenMetrics.Operation.DOLLAR_AMOUNT).count());
+        assertEquals(1L, metrics.latency(ScreenMetrics.Operation.FRAME).count());
+        assertTrue(metrics.latency(ScreenMetrics.Operation.MESSAGE).percentile(99)
+                <= metrics.latency(ScreenMetrics.Operation.MESSAGE).max());
+    }
+
+    // CP25: El marco de saldo rellena los importes y registra solo el texto fijo
+    @Test
+    public void testBalanceFrame() {
+        Screen frameScreen = new Screen(10, new PrintStream(outContent));
+        frameScreen.displayFrame(ScreenFrame.BALANCE, 100000, 120000);
+
+        assertEquals(" - Available balance: $1,000.00\n - Total balance:$1,200.00", outContent.toString());
+        List<String> expectedMessages = new ArrayList<>();
+        expectedMessages.add(" - Available balance: ");
+        expectedMessages.add("\n - Total balance:");
+        assertEquals(expectedMessages, frameScreen.getMessages());
+
+        // un marco mayor que el buffer inicial obliga a ampliarlo
+        char[] filler = new char[300];
+        Arrays.fill(filler, '*');
+        String longText = new String(filler);
+        ScreenFrame longFrame = new ScreenFrame.Builder()
+                .message(longText).amount().message(longText).amount().build();
+        outContent.reset();
+        frameScreen.displayFrame(longFrame, 2000, -5);
+        assertEquals(longText + "$20.00" + longText + "$-0.05", outContent.toString());
+    }
+
+    // CP26: Los marcos fijos registran los mismos mensajes que CP01, CP10 y CP16
+    @Test
+    public void testStaticFrames() {
+        Screen frameScreen = new Screen(20, new PrintStream(outContent));
+        frameScreen.displayFrame(ScreenFrame.WELCOME);
+        frameScreen.displayFrame(ScreenFrame.WITHDRAWAL_MENU);
+        frameScreen.displayFrame(ScreenFrame.DEPOSIT_PROMPT);
+
+        ByteArrayOutputStream expectedOutput = new ByteArrayOutputStream();
+        Screen expectedScreen = new Screen(20, new PrintStream(expectedOutput));
+        expectedScreen.displayMessageLine("\nWelcome!");
+        expectedScreen.displayMessage("\nPlease enter your bank account number: ");
+        expectedScreen.displayMessageLine("\nWithdrawal menu:");
+        expectedScreen.displayMessageLine("1 - $20");
+        expectedScreen.displayMessageLine("2 - $40");
+        expectedScreen.displayMessageLine("3 - $60");
+        expectedScreen.displayMessageLine("4 - $100");
+        expectedScreen.displayMessageLine("5 - $200");
+        expectedScreen.displayMessageLine("6 - Cancel transaction");
+        expectedScreen.displayMessage("\nChoose a withdrawal amount: ");
+        expectedScreen.displayMessage("\nPlease enter a deposit amount in CENTS (or 0 to cancel): ");
+
+        assertEquals(expectedOutput.toString(), outContent.toString());
+        assertEquals(expectedScreen.getMessages(), frameScreen.getMessages());
+    }
+
+    // CP27: Cerrar un ScreenWriter compartido mientras otros hilos escriben no bloquea a nadie
+    @Test
+    public void testConcurrentCloseOfScreenWriter() throws InterruptedException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final ScreenWriter writer = new ScreenWriter(new PrintStream(buffer), 2);
+        final AtomicLong accepted = new AtomicLong();
+        Thread[] sessions = new Thread[8];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = new Thread(() -> {
+                try {
+                    for (int k = 0; k < 1000; k++) {
+                        writer.write(new byte[] {'x'});
+                        accepted.incrementAndGet();
+                    }
+                } catch (IllegalStateException closed) {
+                }
+            });
+            sessions[i].start();
+        }
+        writer.close();
+
+        for (Thread session : sessions) {
+            session.join(5000);
+            assertFalse(session.isAlive());
+        }
+        assertEquals(accepted.get(), (long) buffer.size());
+    }
+
+    // CP28: Los marcos solo admiten ASCII y el ScreenWriter codifica con su charset
+    @Test
+    public void testScreenCharsets() {
+        try {
+            new ScreenFrame.Builder().messageLine("Espaol").build();
+            fail("non-ASCII frame text must be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ScreenWriter writer = new ScreenWriter(new PrintStream(buffer), 4, StandardCharsets.UTF_8);
+        Screen utf8Screen = new Screen(10, writer);
+        utf8Screen.displayMessage("Espaol");
+        writer.close();
+
+        assertArrayEquals("Espaol".getBytes(StandardCharsets.UTF_8), buffer.toByteArray());
+    }
     
 }
 
@@ -0,0 +1,76 @@
+package ATMCaseStudy;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+//LatencyHistogram.java
+// Log-linear histogram of latencies in nanoseconds, safe to record from many threads
+
+public class LatencyHistogram {
+
+    // values below 16 get a bucket each; every higher power of two is
+    // split into 8 buckets, so a bucket is at most 12.5% wide
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = 16 + (63 - 4) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(index(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long mean() {
+        long n = count.sum();
+        return n == 0 ? 0 : sum.sum() / n;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    // upper bound of the bucket holding the given percentile (0-100)
+    public long percentile(double percentile) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return 0;
+    }
+
+    static int index(long value) {
+        if (value < 16) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        return 16 + (exponent - 4) * SUB_BUCKETS + (int) ((value >>> (exponent - 3)) & 7);
+    }
+
+    static long upperBound(int index) {
+        if (index < 16) {
+            return index;
+        }
+        int exponent = (index - 16) / SUB_BUCKETS + 4;
+        int sub = (index - 16) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1L) << (exponent - 3)) - 1;
+    }
+}// end class LatencyHistogram
@@ -0,0 +1,74 @@
+package ATMCaseStudy;
+//MoneyFormatter.java
+// Formats dollar amounts like "$%,.2f" in the US locale, into a reusable buffer
+// Separators are always those of Locale.US ("," thousands, "." decimals),
+// so the printf fallbacks that must match it pass Locale.US as well
+
+public class MoneyFormatter {
+
+    // "$-" + 17 dollar digits + 5 separators + ".00"
+    private final byte[] buffer = new byte[32];
+    private int length;
+
+    // formats an amount given in cents, e.g. 123450 -> $1,234.50
+    public void formatCents(long cents) {
+        format(cents < 0, cents);
+    }
+
+    // formats an amount in dollars; returns false when the result could
+    // differ from printf (NaN, infinite, very large, or within rounding
+    // error of half a cent), leaving those to printf
+    public boolean formatDollars(double amount) {
+        double scaled = Math.abs(amount) * 100;
+        if (!(scaled < 1e13)) {
+            return false;
+        }
+        long cents = Math.round(scaled);
+        if (Math.abs(Math.abs(scaled - cents) - 0.5) < 0.01) {
+            return false;
+        }
+        // printf keeps the sign of negative amounts that round to zero
+        boolean negative = Double.doubleToRawLongBits(amount) < 0;
+        format(negative, negative ? -cents : cents);
+        return true;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // digits are taken from a non-positive value so Long.MIN_VALUE works
+    private void format(boolean negative, long cents) {
+        long rest = cents > 0 ? -cents : cents;
+        int pos = buffer.length;
+        buffer[--pos] = digit(rest);
+        rest /= 10;
+        buffer[--pos] = digit(rest);
+        rest /= 10;
+        buffer[--pos] = '.';
+        int group = 0;
+        do {
+            if (group == 3) {
+                buffer[--pos] = ',';
+                group = 0;
+            }
+            buffer[--pos] = digit(rest);
+            rest /= 10;
+            group++;
+        } while (rest != 0);
+        if (negative) {
+            buffer[--pos] = '-';
+        }
+        buffer[--pos] = '$';
+        length = buffer.length - pos;
+        System.arraycopy(buffer, pos, buffer, 0, length);
+    }
+
+    private static byte digit(long rest) {
+        return (byte) ('0' - rest % 10);
+    }
+}// end class MoneyFormatter
@@ -1,36 +1,216 @@
 package ATMCaseStudy;
-import java.util.ArrayList;
+import java.io.PrintStream;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 //Screen.java
 // Represents the screen of the ATM
 
 public class Screen {
-	
+
+	private static final int DEFAULT_HISTORY = 1000;
+
+	// amounts always use US separators, e.g. $1,234.50, whatever the
+	// default locale of the JVM
 	public void dispalyDollarAmount(double amount) {
-		System.out.printf("$%,.2f", amount);
+		long start = start();
+		if (money.formatDollars(amount)) {
+			writeAmount();
+		} else if (writer == null) {
+			out().printf(Locale.US, "$%,.2f", amount);
+		} else {
+			writer.write(String.format(Locale.US, "$%,.2f", amount).getBytes(writer.charset()));
+		}
+		finish(ScreenMetrics.Operation.DOLLAR_AMOUNT, start);
+	}
+
+	public void displayCentsAmount(long cents) {
+		long start = start();
+		money.formatCents(cents);
+		writeAmount();
+		finish(ScreenMetrics.Operation.DOLLAR_AMOUNT, start);
+	}
+
+	private void writeAmount() {
+		write(money.buffer(), money.length(), true);
 	}
-	
-	private List<String> messages;
+
+	private final MoneyFormatter money = new MoneyFormatter();
+
+	// reused to assemble frames that contain amounts
+	private byte[] frameBuffer = new byte[256];
+
+	// most recent messages, oldest first starting at index first
+	private final String[] messages;
+	private int first;
+	private int count;
+	private final List<String> history = new History();
+
+	// this session's output, or null to use the current System.out
+	private final PrintStream out;
+
+	// background writer, or null to print directly to the output;
+	// it may be shared, so closing it is left to whoever created it
+	private final ScreenWriter writer;
+
+	// output call counts and latencies, or null when not measured
+	private ScreenMetrics metrics;
 
     public Screen() {
-        messages = new ArrayList<>();
+        this(DEFAULT_HISTORY);
+    }
+
+    public Screen(int historyCapacity) {
+        this(historyCapacity, null, null);
+    }
+
+    public Screen(int historyCapacity, ScreenWriter writer) {
+        this(historyCapacity, null, Objects.requireNonNull(writer, "writer"));
+    }
+
+    // prints to the given stream, e.g. one per session in a server
+    public Screen(int historyCapacity, PrintStream out) {
+        this(historyCapacity, Objects.requireNonNull(out, "out"), null);
+    }
+
+    private Screen(int historyCapacity, PrintStream out, ScreenWriter writer) {
+        if (historyCapacity < 1) {
+            throw new IllegalArgumentException("historyCapacity must be positive");
+        }
+        messages = new String[historyCapacity];
+        this.out = out;
+        this.writer = writer;
+    }
+
+    private PrintStream out() {
+        return out != null ? out : System.out;
+    }
+
+    // starts recording output calls into the given metrics, which may be
+    // shared by many Screens; null turns recording off
+    public void setMetrics(ScreenMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private long start() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    private void finish(ScreenMetrics.Operation operation, long start) {
+        if (metrics != null) {
+            metrics.record(operation, start);
+        }
     }
 
     public void displayMessage(String message) {
-        System.out.print(message);
-        messages.add(message);
+        long start = start();
+        if (writer == null) {
+            out().print(message);
+        } else {
+            writer.write(message.getBytes(writer.charset()));
+        }
+        record(message);
+        finish(ScreenMetrics.Operation.MESSAGE, start);
     }
 
     public void displayMessageLine(String message) {
-        System.out.println(message);
-        messages.add(message);
+        long start = start();
+        if (writer == null) {
+            out().println(message);
+        } else {
+            writer.write((message + System.lineSeparator()).getBytes(writer.charset()));
+        }
+        record(message);
+        finish(ScreenMetrics.Operation.MESSAGE_LINE, start);
+    }
+
+    // shows a pre-rendered frame in a single write, filling its amount
+    // slots with the given amounts in cents
+    public void displayFrame(ScreenFrame frame, long... amounts) {
+        if (amounts.length != frame.amountCount()) {
+            throw new IllegalArgumentException("frame expects "
+                    + frame.amountCount() + " amounts, got " + amounts.length);
+        }
+        long start = start();
+        if (amounts.length == 0) {
+            write(frame.part(0), frame.length(), false);
+        } else {
+            int length = frame.part(0).length;
+            ensureFrameBuffer(length);
+            System.arraycopy(frame.part(0), 0, frameBuffer, 0, length);
+            for (int i = 0; i < amounts.length; i++) {
+                money.formatCents(amounts[i]);
+                byte[] part = frame.part(i + 1);
+                ensureFrameBuffer(length + money.length() + part.length);
+                System.arraycopy(money.buffer(), 0, frameBuffer, length, money.length());
+                length += money.length();
+                System.arraycopy(part, 0, frameBuffer, length, part.length);
+                length += part.length;
+            }
+            write(frameBuffer, length, true);
+        }
+        for (String message : frame.messages()) {
+            record(message);
+        }
+        finish(ScreenMetrics.Operation.FRAME, start);
+    }
+
+    private void ensureFrameBuffer(int length) {
+        if (frameBuffer.length < length) {
+            frameBuffer = Arrays.copyOf(frameBuffer, Math.max(length, frameBuffer.length * 2));
+        }
+    }
+
+    // bytes here are ASCII (amounts and frames), so they read the same in
+    // any ASCII-compatible charset; the writer keeps the chunk, so reused
+    // buffers are copied first
+    private void write(byte[] bytes, int length, boolean reused) {
+        if (writer == null) {
+            out().write(bytes, 0, length);
+        } else {
+            writer.write(reused ? Arrays.copyOf(bytes, length) : bytes);
+        }
+    }
+
+    // keeps the last messages.length messages, overwriting the oldest
+    private void record(String message) {
+        if (count < messages.length) {
+            messages[(first + count) % messages.length] = message;
+            count++;
+        } else {
+            messages[first] = message;
+            first = (first + 1) % messages.length;
+        }
     }
 
     public void clearMessages() {
-        messages.clear();
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = null;
+        }
+        first = 0;
+        count = 0;
     }
 
+    // read-only view of the retained messages, oldest first; it follows
+    // later displays and clears rather than being a copy
     public List<String> getMessages() {
-        return messages;
+        return history;
+    }
+
+    private class History extends AbstractList<String> {
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            return messages[(first + index) % messages.length];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
     }
 }// end class screen
\ No newline at end of file
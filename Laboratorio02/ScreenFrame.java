@@ -0,0 +1,123 @@
+package ATMCaseStudy;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+//ScreenFrame.java
+// A screen rendered once into bytes, with slots for dollar amounts
+// Frame text must be ASCII: its bytes are then the same in any
+// ASCII-compatible charset the output stream may use
+
+public final class ScreenFrame {
+
+    public static final ScreenFrame WELCOME = new Builder()
+            .messageLine("\nWelcome!")
+            .message("\nPlease enter your bank account number: ")
+            .build();
+
+    public static final ScreenFrame MAIN_MENU = new Builder()
+            .messageLine("\nMain Menu:")
+            .messageLine("1 - View my balance")
+            .messageLine("2 - Withdraw cash")
+            .messageLine("3 - Deposit funds")
+            .messageLine("4 - Exit\n")
+            .message("Choose an option: ")
+            .build();
+
+    public static final ScreenFrame WITHDRAWAL_MENU = new Builder()
+            .messageLine("\nWithdrawal menu:")
+            .messageLine("1 - $20")
+            .messageLine("2 - $40")
+            .messageLine("3 - $60")
+            .messageLine("4 - $100")
+            .messageLine("5 - $200")
+            .messageLine("6 - Cancel transaction")
+            .message("\nChoose a withdrawal amount: ")
+            .build();
+
+    public static final ScreenFrame DEPOSIT_PROMPT = new Builder()
+            .message("\nPlease enter a deposit amount in CENTS (or 0 to cancel): ")
+            .build();
+
+    // available and total balance, in that order
+    public static final ScreenFrame BALANCE = new Builder()
+            .message(" - Available balance: ")
+            .amount()
+            .message("\n - Total balance:")
+            .amount()
+            .build();
+
+    // text before, between and after the amount slots
+    private final byte[][] parts;
+    private final String[] messages;
+    private final int length;
+
+    private ScreenFrame(byte[][] parts, String[] messages) {
+        this.parts = parts;
+        this.messages = messages;
+        int total = 0;
+        for (byte[] part : parts) {
+            total += part.length;
+        }
+        this.length = total;
+    }
+
+    public int amountCount() {
+        return parts.length - 1;
+    }
+
+    // text before amount slot index, or after the last slot; with no
+    // slots, part(0) is the whole frame
+    byte[] part(int index) {
+        return parts[index];
+    }
+
+    // length of the frame's text, not counting amounts
+    int length() {
+        return length;
+    }
+
+    // the messages a Screen records when showing this frame
+    String[] messages() {
+        return messages;
+    }
+
+    public static final class Builder {
+        private final List<byte[]> parts = new ArrayList<>();
+        private final List<String> messages = new ArrayList<>();
+        private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+
+        public Builder message(String message) {
+            append(message, message);
+            return this;
+        }
+
+        public Builder messageLine(String message) {
+            append(message, message + System.lineSeparator());
+            return this;
+        }
+
+        private void append(String message, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) > 127) {
+                    throw new IllegalArgumentException("frame text must be ASCII: " + message);
+                }
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            current.write(bytes, 0, bytes.length);
+            messages.add(message);
+        }
+
+        public Builder amount() {
+            parts.add(current.toByteArray());
+            current.reset();
+            return this;
+        }
+
+        public ScreenFrame build() {
+            List<byte[]> all = new ArrayList<>(parts);
+            all.add(current.toByteArray());
+            return new ScreenFrame(all.toArray(new byte[0][]), messages.toArray(new String[0]));
+        }
+    }
+}// end class ScreenFrame
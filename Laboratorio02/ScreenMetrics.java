@@ -0,0 +1,88 @@
+package ATMCaseStudy;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+//ScreenMetrics.java
+// Call counts and latencies of Screen output, shared by any number of Screens
+
+public class ScreenMetrics {
+
+    public enum Operation { MESSAGE, MESSAGE_LINE, DOLLAR_AMOUNT, FRAME }
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+    private ScheduledExecutorService dumper;
+
+    public ScreenMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    // records one call that started at startNanos (from System.nanoTime)
+    public void record(Operation operation, long startNanos) {
+        latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram latency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    public void dump(PrintStream out) {
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = latency(operation);
+            out.printf("%s count=%d mean=%dns p50=%dns p99=%dns max=%dns%n", operation,
+                    latency.count(), latency.mean(), latency.percentile(50),
+                    latency.percentile(99), latency.max());
+        }
+    }
+
+    // replaces the file atomically, so readers never see a half-written
+    // dump; a failed write leaves the previous dump in place
+    public void dumpTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        boolean failed;
+        try (PrintStream out = new PrintStream(new FileOutputStream(temp.toFile()))) {
+            dump(out);
+            // PrintStream does not throw on write errors, it only records them
+            failed = out.checkError();
+        }
+        if (failed) {
+            Files.deleteIfExists(temp);
+            throw new IOException("could not write " + temp);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // dumps to the file every period from a background thread until stop()
+    public synchronized void startDumping(Path file, long period, TimeUnit unit) {
+        if (dumper != null) {
+            throw new IllegalStateException("already dumping");
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "screen-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> {
+            // any exception escaping here would cancel all later dumps
+            try {
+                dumpTo(file);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not write screen metrics: " + e);
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stop() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+        }
+    }
+}// end class ScreenMetrics
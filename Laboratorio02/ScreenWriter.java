@@ -0,0 +1,162 @@
+package ATMCaseStudy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+//ScreenWriter.java
+// Writes screen output from a single background thread, in batches
+
+public class ScreenWriter {
+
+    private static final byte[] CLOSE = new byte[0];
+    // how long a blocked write waits before checking for close again
+    private static final long RETRY_MILLIS = 10;
+
+    private final PrintStream out;
+    private final Charset charset;
+    private final BlockingQueue<byte[]> pending;
+    private final Thread thread;
+    // writers hold the read lock while queueing, so once close() has set
+    // closed under the write lock nothing more is queued
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    // text is encoded in the default charset, as a PrintStream built
+    // without a charset would do
+    public ScreenWriter(PrintStream out, int capacity) {
+        this(out, capacity, Charset.defaultCharset());
+    }
+
+    // charset should be the one out was created with
+    public ScreenWriter(PrintStream out, int capacity, Charset charset) {
+        this.out = Objects.requireNonNull(out, "out");
+        this.charset = Objects.requireNonNull(charset, "charset");
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, "screen-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // charset that text written through this writer is encoded in
+    public Charset charset() {
+        return charset;
+    }
+
+    // queues a chunk of output; waits only when the buffer is full.
+    // An interrupt does not drop the chunk, it is kept for the caller.
+    public void write(byte[] chunk) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                lock.readLock().lock();
+                try {
+                    if (closed) {
+                        throw new IllegalStateException("screen writer is closed");
+                    }
+                    if (pending.offer(chunk, RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // writes everything queued so far and stops the background thread;
+    // later calls do nothing
+    public synchronized void close() {
+        if (!markClosed()) {
+            return;
+        }
+        boolean interrupted = false;
+        try {
+            while (thread.isAlive()) {
+                try {
+                    if (pending.offer(CLOSE, RETRY_MILLIS, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // returns false if the writer was already closed
+    private boolean markClosed() {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void run() {
+        List<byte[]> batch = new ArrayList<>();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        boolean open = true;
+        try {
+            while (open) {
+                try {
+                    batch.add(pending.take());
+                } catch (InterruptedException e) {
+                    // stop, but still write out what has been queued
+                    open = false;
+                }
+                pending.drainTo(batch);
+                for (byte[] chunk : batch) {
+                    if (chunk == CLOSE) {
+                        open = false;
+                    } else {
+                        buffer.write(chunk, 0, chunk.length);
+                    }
+                }
+                try {
+                    buffer.writeTo(out);
+                } catch (IOException e) {
+                    // PrintStream reports errors through checkError()
+                }
+                out.flush();
+                buffer.reset();
+                batch.clear();
+            }
+        } finally {
+            // nothing reads the queue any more: refuse further writes and
+            // discard what is left so no writer stays blocked on it
+            markClosed();
+            pending.clear();
+        }
+    }
+}// end class ScreenWriter